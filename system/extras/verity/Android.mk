@@ -45,6 +45,14 @@ LOCAL_MODULE_TAGS := optional
 LOCAL_STATIC_JAVA_LIBRARIES := bouncycastle-host
 include $(BUILD_HOST_JAVA_LIBRARY)
 
+include $(CLEAR_VARS)
+LOCAL_SRC_FILES := BatchSigner.java BootSignature.java VeritySigner.java Utils.java
+LOCAL_MODULE := BatchSigner
+LOCAL_JAR_MANIFEST := BatchSigner.mf
+LOCAL_MODULE_TAGS := optional
+LOCAL_STATIC_JAVA_LIBRARIES := bouncycastle-host
+include $(BUILD_HOST_JAVA_LIBRARY)
+
 include $(CLEAR_VARS)
 LOCAL_SRC_FILES := verity_verifier.cpp
 LOCAL_MODULE := verity_verifier
@@ -94,6 +102,15 @@ LOCAL_MODULE_TAGS := optional
 LOCAL_REQUIRED_MODULES := KeystoreSigner
 include $(BUILD_PREBUILT)
 
+include $(CLEAR_VARS)
+LOCAL_SRC_FILES := batch_signer
+LOCAL_MODULE := batch_signer
+LOCAL_MODULE_CLASS := EXECUTABLES
+LOCAL_IS_HOST_MODULE := true
+LOCAL_MODULE_TAGS := optional
+LOCAL_REQUIRED_MODULES := BatchSigner
+include $(BUILD_PREBUILT)
+
 include $(CLEAR_VARS)
 LOCAL_MODULE := build_verity_metadata.py
 LOCAL_MODULE_CLASS := EXECUTABLES
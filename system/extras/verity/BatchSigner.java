@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Signs or verifies many images in one JVM. Each line of the manifest
+ * describes one job:
+ *
+ *     boot-sign <target> <image> <key.pk8> <certificate.x509.pem> <outfile>
+ *     boot-verify <image> [<certificate.x509.pem>]
+ *     verity-sign <contentfile> <key.pk8> <sigfile>
+ *     verity-verify <contentfile> <certificate.x509.pem> <sigfile>
+ *
+ * Blank lines and lines starting with '#' are ignored. Every key and
+ * certificate is loaded once, before any job runs, so an encrypted key
+ * only prompts for its password once. The jobs then run on a pool of
+ * worker threads.
+ */
+public class BatchSigner {
+
+    private static final String BOOT_SIGN = "boot-sign";
+    private static final String BOOT_VERIFY = "boot-verify";
+    private static final String VERITY_SIGN = "verity-sign";
+    private static final String VERITY_VERIFY = "verity-verify";
+
+    private final Map<String, PrivateKey> mKeys = new HashMap<String, PrivateKey>();
+    private final Map<String, X509Certificate> mCerts =
+            new HashMap<String, X509Certificate>();
+
+    private static class Job {
+        final int line;
+        final String[] args;
+
+        Job(int line, String[] args) {
+            this.line = line;
+            this.args = args;
+        }
+
+        String op() {
+            return args[0];
+        }
+
+        String image() {
+            return args[BOOT_SIGN.equals(op()) ? 2 : 1];
+        }
+    }
+
+    private static class Result {
+        final Job job;
+        final boolean ok;
+        final long elapsedMs;
+        final String message;
+
+        Result(Job job, boolean ok, long elapsedMs, String message) {
+            this.job = job;
+            this.ok = ok;
+            this.elapsedMs = elapsedMs;
+            this.message = message;
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: BatchSigner [-j <threads>] <manifest>");
+        System.exit(1);
+    }
+
+    static List<Job> parseManifest(String manifestPath) throws Exception {
+        List<Job> jobs = new ArrayList<Job>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifestPath))) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] args = line.split("\\s+");
+                int expected;
+                if (BOOT_SIGN.equals(args[0])) {
+                    expected = 6;
+                } else if (BOOT_VERIFY.equals(args[0])) {
+                    expected = args.length == 2 ? 2 : 3;
+                } else if (VERITY_SIGN.equals(args[0])
+                        || VERITY_VERIFY.equals(args[0])) {
+                    expected = 4;
+                } else {
+                    throw new IllegalArgumentException(manifestPath + ":" +
+                            lineNumber + ": unknown operation " + args[0]);
+                }
+
+                if (args.length != expected) {
+                    throw new IllegalArgumentException(manifestPath + ":" +
+                            lineNumber + ": wrong number of arguments for " + args[0]);
+                }
+                jobs.add(new Job(lineNumber, args));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Loads every key and certificate referenced by the jobs. This runs on
+     * the main thread because Utils may prompt for key passwords.
+     */
+    void loadCredentials(List<Job> jobs) throws Exception {
+        for (Job job : jobs) {
+            String[] a = job.args;
+
+            if (BOOT_SIGN.equals(job.op())) {
+                loadKey(a[3]);
+                loadCertificate(a[4]);
+            } else if (BOOT_VERIFY.equals(job.op())) {
+                if (a.length > 2) {
+                    loadCertificate(a[2]);
+                }
+            } else if (VERITY_SIGN.equals(job.op())) {
+                loadKey(a[2]);
+            } else {
+                loadCertificate(a[2]);
+            }
+        }
+    }
+
+    private void loadKey(String path) throws Exception {
+        if (!mKeys.containsKey(path)) {
+            mKeys.put(path, Utils.loadDERPrivateKeyFromFile(path));
+        }
+    }
+
+    private void loadCertificate(String path) throws Exception {
+        if (!mCerts.containsKey(path)) {
+            mCerts.put(path, Utils.loadPEMCertificate(path));
+        }
+    }
+
+    private boolean run(Job job) throws Exception {
+        String[] a = job.args;
+
+        if (BOOT_SIGN.equals(job.op())) {
+            BootSignature.doSignature(a[1], a[2], mKeys.get(a[3]), mCerts.get(a[4]), a[5]);
+            return true;
+        } else if (BOOT_VERIFY.equals(job.op())) {
+            return BootSignature.verifyImage(a[1], a.length > 2 ? mCerts.get(a[2]) : null);
+        } else if (VERITY_SIGN.equals(job.op())) {
+            VeritySigner.sign(a[1], mKeys.get(a[2]), a[3]);
+            return true;
+        } else {
+            return VeritySigner.verify(a[1], mCerts.get(a[2]), a[3]);
+        }
+    }
+
+    List<Result> runAll(List<Job> jobs, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+
+        try {
+            for (final Job job : jobs) {
+                futures.add(pool.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        long start = System.nanoTime();
+                        boolean ok = false;
+                        String message;
+
+                        try {
+                            ok = run(job);
+                            message = ok ? "OK" : "INVALID";
+                        } catch (Exception e) {
+                            message = "FAILED: " + e;
+                        }
+
+                        long elapsedMs = (System.nanoTime() - start) / 1000000;
+                        return new Result(job, ok, elapsedMs, message);
+                    }
+                }));
+            }
+
+            List<Result> results = new ArrayList<Result>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String manifest = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-j".equals(args[i])) {
+                if (i + 1 >= args.length) {
+                    usage();
+                }
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    usage();
+                }
+            } else if (manifest == null) {
+                manifest = args[i];
+            } else {
+                usage();
+            }
+        }
+
+        if (manifest == null || threads < 1) {
+            usage();
+            return;
+        }
+
+        Security.addProvider(new BouncyCastleProvider());
+
+        BatchSigner signer = new BatchSigner();
+        List<Job> jobs = parseManifest(manifest);
+        signer.loadCredentials(jobs);
+
+        long start = System.nanoTime();
+        List<Result> results = signer.runAll(jobs, threads);
+        long totalMs = (System.nanoTime() - start) / 1000000;
+
+        int failures = 0;
+        for (Result r : results) {
+            if (!r.ok) {
+                failures++;
+            }
+            System.err.println(manifest + ":" + r.job.line + ": " + r.job.op() + " " +
+                    r.job.image() + " " + r.message + " (" + r.elapsedMs + " ms)");
+        }
+
+        System.err.println(results.size() + " images, " + failures + " failed, " +
+                totalMs + " ms on " + threads + " threads");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
@@ -20,9 +20,16 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Security;
+import java.security.Signature;
 import java.security.cert.X509Certificate;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
@@ -73,6 +80,9 @@ public class BootSignature extends ASN1Object
 
     private static final int FORMAT_VERSION = 1;
 
+    /* magic, kernel, ramdisk and second stage fields, page size, dt size */
+    private static final int BOOT_IMAGE_HEADER_SIZE = 48;
+
     /**
      * Initializes the object for signing an image file
      * @param target Target name, included in the signed data
@@ -166,6 +176,17 @@ public class BootSignature extends ASN1Object
         return Utils.sign(key, signable);
     }
 
+    /**
+     * Signs the first length bytes of the image followed by the
+     * authenticated attributes, reading the image in chunks
+     */
+    public byte[] sign(FileChannel image, long length, PrivateKey key) throws Exception {
+        Signature signer = Utils.initSigner(key);
+        Utils.update(signer, image, 0, length);
+        signer.update(getEncodedAuthenticatedAttributes());
+        return signer.sign();
+    }
+
     public boolean verify(byte[] image) throws Exception {
         if (length.getValue().intValue() != image.length) {
             throw new IllegalArgumentException("Invalid image length");
@@ -176,6 +197,21 @@ public class BootSignature extends ASN1Object
                     algorithmIdentifier);
     }
 
+    /**
+     * Verifies the first length bytes of the image followed by the
+     * authenticated attributes, reading the image in chunks
+     */
+    public boolean verify(FileChannel image, long length) throws Exception {
+        if (this.length.getValue().longValue() != length) {
+            throw new IllegalArgumentException("Invalid image length");
+        }
+
+        Signature verifier = Utils.initVerifier(publicKey, algorithmIdentifier);
+        Utils.update(verifier, image, 0, length);
+        verifier.update(getEncodedAuthenticatedAttributes());
+        return verifier.verify(signature.getOctets());
+    }
+
     public ASN1Primitive toASN1Primitive() {
         ASN1EncodableVector v = new ASN1EncodableVector();
         v.add(formatVersion);
@@ -225,55 +261,111 @@ public class BootSignature extends ASN1Object
                                     String keyPath,
                                     String certPath,
                                     String outPath) throws Exception {
+        X509Certificate cert = Utils.loadPEMCertificate(certPath);
+        PrivateKey key = Utils.loadDERPrivateKeyFromFile(keyPath);
+        doSignature(target, imagePath, key, cert, outPath);
+    }
 
-        byte[] image = Utils.read(imagePath);
-        int signableSize = getSignableImageSize(image);
+    /**
+     * Signs an image with an already loaded key and certificate, so that
+     * callers signing several images only need to load them once
+     */
+    public static void doSignature( String target,
+                                    String imagePath,
+                                    PrivateKey key,
+                                    X509Certificate cert,
+                                    String outPath) throws Exception {
 
-        if (signableSize < image.length) {
-            System.err.println("NOTE: truncating file " + imagePath +
-                    " from " + image.length + " to " + signableSize + " bytes");
-            image = Arrays.copyOf(image, signableSize);
-        } else if (signableSize > image.length) {
-            throw new IllegalArgumentException("Invalid image: too short, expected " +
-                    signableSize + " bytes");
+        // The output is often the input itself, so write it next to the destination and
+        // move it into place only once the image has been read
+        Path out = Paths.get(outPath).toAbsolutePath();
+        Path temp = out.resolveSibling(out.getFileName() + ".signing");
+        try {
+            writeSignedImage(target, imagePath, key, cert, temp);
+            Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
         }
+    }
 
-        BootSignature bootsig = new BootSignature(target, image.length);
+    private static void writeSignedImage(String target,
+                                         String imagePath,
+                                         PrivateKey key,
+                                         X509Certificate cert,
+                                         Path outPath) throws Exception {
+        try (FileChannel image = FileChannel.open(Paths.get(imagePath),
+                    StandardOpenOption.READ)) {
+            long imageSize = image.size();
+            int signableSize = getSignableImageSize(
+                    Utils.read(image, 0, BOOT_IMAGE_HEADER_SIZE));
+
+            if (signableSize < imageSize) {
+                System.err.println("NOTE: truncating file " + imagePath +
+                        " from " + imageSize + " to " + signableSize + " bytes");
+            } else if (signableSize > imageSize) {
+                throw new IllegalArgumentException("Invalid image: too short, expected " +
+                        signableSize + " bytes");
+            }
 
-        X509Certificate cert = Utils.loadPEMCertificate(certPath);
-        bootsig.setCertificate(cert);
+            BootSignature bootsig = new BootSignature(target, signableSize);
+            bootsig.setCertificate(cert);
+            bootsig.setSignature(bootsig.sign(image, signableSize, key),
+                Utils.getSignatureAlgorithmIdentifier(key));
+
+            byte[] encoded_bootsig = bootsig.getEncoded();
+
+            try (FileChannel out = FileChannel.open(outPath,
+                        StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                Utils.copy(image, signableSize, out);
+                ByteBuffer metadata = ByteBuffer.wrap(encoded_bootsig);
+                while (metadata.hasRemaining()) {
+                    out.write(metadata);
+                }
+            }
+        }
+    }
 
-        PrivateKey key = Utils.loadDERPrivateKeyFromFile(keyPath);
-        bootsig.setSignature(bootsig.sign(image, key),
-            Utils.getSignatureAlgorithmIdentifier(key));
+    /**
+     * Verifies a signed image, using the certificate embedded in the
+     * signature unless cert is non-null
+     * @return true if the signature is valid
+     */
+    public static boolean verifyImage(String imagePath, X509Certificate cert)
+            throws Exception {
+        try (FileChannel image = FileChannel.open(Paths.get(imagePath),
+                    StandardOpenOption.READ)) {
+            long imageSize = image.size();
+            int signableSize = getSignableImageSize(
+                    Utils.read(image, 0, BOOT_IMAGE_HEADER_SIZE));
+
+            if (signableSize >= imageSize) {
+                throw new IllegalArgumentException("Invalid image: not signed");
+            }
 
-        byte[] encoded_bootsig = bootsig.getEncoded();
-        byte[] image_with_metadata = Arrays.copyOf(image, image.length + encoded_bootsig.length);
+            byte[] signature = Utils.read(image, signableSize,
+                    (int) (imageSize - signableSize));
+            BootSignature bootsig = new BootSignature(signature);
 
-        System.arraycopy(encoded_bootsig, 0, image_with_metadata,
-                image.length, encoded_bootsig.length);
+            if (cert != null) {
+                bootsig.setCertificate(cert);
+            }
 
-        Utils.write(image_with_metadata, outPath);
+            return bootsig.verify(image, signableSize);
+        }
     }
 
     public static void verifySignature(String imagePath, String certPath) throws Exception {
-        byte[] image = Utils.read(imagePath);
-        int signableSize = getSignableImageSize(image);
-
-        if (signableSize >= image.length) {
-            throw new IllegalArgumentException("Invalid image: not signed");
-        }
-
-        byte[] signature = Arrays.copyOfRange(image, signableSize, image.length);
-        BootSignature bootsig = new BootSignature(signature);
+        X509Certificate cert = null;
 
         if (!certPath.isEmpty()) {
             System.err.println("NOTE: verifying using public key from " + certPath);
-            bootsig.setCertificate(Utils.loadPEMCertificate(certPath));
+            cert = Utils.loadPEMCertificate(certPath);
         }
 
         try {
-            if (bootsig.verify(Arrays.copyOf(image, signableSize))) {
+            if (verifyImage(imagePath, cert)) {
                 System.err.println("Signature is VALID");
                 System.exit(0);
             } else {
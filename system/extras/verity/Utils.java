@@ -25,6 +25,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.PrivateKey;
@@ -60,6 +62,9 @@ import org.bouncycastle.util.encoders.Base64;
 
 public class Utils {
 
+    /* Size of the chunks fed to Signature.update when streaming a file */
+    private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
     private static final Map<String, String> ID_TO_ALG;
     private static final Map<String, String> ALG_TO_ID;
     private static String mKeyPath;
@@ -274,8 +279,8 @@ public class Utils {
         return new AlgorithmIdentifier(new ASN1ObjectIdentifier(id));
     }
 
-    static boolean verify(PublicKey key, byte[] input, byte[] signature,
-            AlgorithmIdentifier algId) throws Exception {
+    static Signature initVerifier(PublicKey key, AlgorithmIdentifier algId)
+            throws Exception {
         String algName = ID_TO_ALG.get(algId.getAlgorithm().getId());
 
         if (algName == null) {
@@ -284,18 +289,97 @@ public class Utils {
 
         Signature verifier = Signature.getInstance(algName);
         verifier.initVerify(key);
+        return verifier;
+    }
+
+    static Signature initSigner(PrivateKey privateKey) throws Exception {
+        Signature signer = Signature.getInstance(getSignatureAlgorithm(privateKey));
+        signer.initSign(privateKey);
+        return signer;
+    }
+
+    static boolean verify(PublicKey key, byte[] input, byte[] signature,
+            AlgorithmIdentifier algId) throws Exception {
+        Signature verifier = initVerifier(key, algId);
         verifier.update(input);
 
         return verifier.verify(signature);
     }
 
+    static boolean verify(PublicKey key, FileChannel input, long length,
+            byte[] signature, AlgorithmIdentifier algId) throws Exception {
+        Signature verifier = initVerifier(key, algId);
+        update(verifier, input, 0, length);
+
+        return verifier.verify(signature);
+    }
+
     static byte[] sign(PrivateKey privateKey, byte[] input) throws Exception {
-        Signature signer = Signature.getInstance(getSignatureAlgorithm(privateKey));
-        signer.initSign(privateKey);
+        Signature signer = initSigner(privateKey);
         signer.update(input);
         return signer.sign();
     }
 
+    static byte[] sign(PrivateKey privateKey, FileChannel input, long length)
+            throws Exception {
+        Signature signer = initSigner(privateKey);
+        update(signer, input, 0, length);
+        return signer.sign();
+    }
+
+    /**
+     * Feeds length bytes of the channel, starting at offset, to the
+     * signature in fixed-size chunks so the file is never held in memory.
+     */
+    static void update(Signature signature, FileChannel input, long offset,
+            long length) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(
+                (int) Math.min(STREAM_BUFFER_SIZE, Math.max(length, 1)));
+        long end = offset + length;
+
+        while (offset < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - offset));
+
+            int n = input.read(buffer, offset);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at offset " + offset);
+            }
+
+            signature.update(buffer.array(), 0, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Copies the first length bytes of input to the current position of
+     * output without staging them on the heap.
+     */
+    static void copy(FileChannel input, long length, FileChannel output)
+            throws Exception {
+        long offset = 0;
+
+        while (offset < length) {
+            long n = input.transferTo(offset, length - offset, output);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of file at offset " + offset);
+            }
+            offset += n;
+        }
+    }
+
+    static byte[] read(FileChannel input, long offset, int length) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            int n = input.read(buffer, offset + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
     static byte[] read(String fname) throws Exception {
         long offset = 0;
         File f = new File(fname);
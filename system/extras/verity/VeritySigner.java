@@ -16,6 +16,9 @@
 
 package com.android.verity;
 
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.PublicKey;
 import java.security.PrivateKey;
 import java.security.Security;
@@ -31,6 +34,36 @@ public class VeritySigner {
         System.exit(1);
     }
 
+    /**
+     * Writes the signature of the content file to sigPath
+     */
+    public static void sign(String contentPath, PrivateKey privateKey,
+            String sigPath) throws Exception {
+        byte[] signature;
+
+        try (FileChannel content = FileChannel.open(Paths.get(contentPath),
+                    StandardOpenOption.READ)) {
+            signature = Utils.sign(privateKey, content, content.size());
+        }
+
+        Utils.write(signature, sigPath);
+    }
+
+    /**
+     * @return true if sigPath holds a valid signature of the content file
+     */
+    public static boolean verify(String contentPath, X509Certificate cert,
+            String sigPath) throws Exception {
+        PublicKey publicKey = cert.getPublicKey();
+        byte[] signature = Utils.read(sigPath);
+
+        try (FileChannel content = FileChannel.open(Paths.get(contentPath),
+                    StandardOpenOption.READ)) {
+            return Utils.verify(publicKey, content, content.size(), signature,
+                    Utils.getSignatureAlgorithmIdentifier(publicKey));
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         if (args.length < 3) {
             usage();
@@ -39,17 +72,11 @@ public class VeritySigner {
 
         Security.addProvider(new BouncyCastleProvider());
 
-        byte[] content = Utils.read(args[0]);
-
         if (args.length > 3 && "-verify".equals(args[3])) {
             X509Certificate cert = Utils.loadPEMCertificate(args[1]);
-            PublicKey publicKey = cert.getPublicKey();
-
-            byte[] signature = Utils.read(args[2]);
 
             try {
-                if (Utils.verify(publicKey, content, signature,
-                            Utils.getSignatureAlgorithmIdentifier(publicKey))) {
+                if (verify(args[0], cert, args[2])) {
                     System.err.println("Signature is VALID");
                     System.exit(0);
                 } else {
@@ -62,8 +89,7 @@ public class VeritySigner {
             System.exit(1);
         } else {
             PrivateKey privateKey = Utils.loadDERPrivateKeyFromFile(args[1]);
-            byte[] signature = Utils.sign(privateKey, content);
-            Utils.write(signature, args[2]);
+            sign(args[0], privateKey, args[2]);
         }
     }
 }
@@ -0,0 +1,16 @@
+LOCAL_PATH:= $(call my-dir)
+
+include $(CLEAR_VARS)
+LOCAL_SRC_FILES := \
+    $(call all-java-files-under, src) \
+    ../tests/src/com/android/verity/TestKeys.java \
+    ../BootSignature.java \
+    ../Utils.java
+LOCAL_MODULE := VerityBenchmarks
+LOCAL_JAR_MANIFEST := VerityBenchmarks.mf
+LOCAL_MODULE_TAGS := optional
+LOCAL_STATIC_JAVA_LIBRARIES := \
+    bouncycastle-host \
+    jmh-core \
+    jmh-generator-annprocess
+include $(BUILD_HOST_JAVA_LIBRARY)
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The non-cryptographic parts of boot image signing that don't depend on
+ * the key: header parsing and building the signable image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BootImageBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    public int imageSize;
+
+    private byte[] image;
+    private BootSignature bootsig;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        image = TestKeys.generateBootImage(imageSize);
+        bootsig = new BootSignature("/boot", imageSize);
+    }
+
+    @Benchmark
+    public int getSignableImageSize() throws Exception {
+        return BootSignature.getSignableImageSize(image);
+    }
+
+    @Benchmark
+    public byte[] generateSignableImage(ThroughputCounters counters) throws Exception {
+        counters.add(imageSize);
+        return bootsig.generateSignableImage(image);
+    }
+}
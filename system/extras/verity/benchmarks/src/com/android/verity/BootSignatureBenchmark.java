@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding the boot signature footer, whose size depends on the key.
+ * The key independent steps are in {@link BootImageBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BootSignatureBenchmark {
+
+    @Param({TestKeys.RSA_2048, TestKeys.RSA_4096, TestKeys.EC_256})
+    public String keyType;
+
+    // The footer only records the image length, so one size is enough
+    private static final int IMAGE_SIZE = 65536;
+
+    private BootSignature bootsig;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        KeyPair keyPair = TestKeys.generateKeyPair(keyType);
+        byte[] image = TestKeys.generateBootImage(IMAGE_SIZE);
+
+        bootsig = new BootSignature("/boot", IMAGE_SIZE);
+        bootsig.setCertificate(TestKeys.generateCertificate(keyPair));
+        bootsig.setSignature(bootsig.sign(image, keyPair.getPrivate()),
+                Utils.getSignatureAlgorithmIdentifier(keyPair.getPrivate()));
+    }
+
+    @Benchmark
+    public byte[] getEncoded() throws Exception {
+        return bootsig.getEncoded();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Utils.sign and Utils.verify over in-memory and file-backed images for
+ * each supported key type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    @Param({TestKeys.RSA_2048, TestKeys.RSA_4096, TestKeys.EC_256})
+    public String keyType;
+
+    @Param({"65536", "1048576", "16777216"})
+    public int imageSize;
+
+    private KeyPair keyPair;
+    private AlgorithmIdentifier algId;
+    private byte[] image;
+    private byte[] signature;
+    private File imageFile;
+    private FileChannel imageChannel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        keyPair = TestKeys.generateKeyPair(keyType);
+        algId = Utils.getSignatureAlgorithmIdentifier(keyPair.getPrivate());
+        image = TestKeys.generateBootImage(imageSize);
+        signature = Utils.sign(keyPair.getPrivate(), image);
+
+        imageFile = File.createTempFile("verity-benchmark", ".img");
+        Utils.write(image, imageFile.getPath());
+        imageChannel = FileChannel.open(imageFile.toPath(), StandardOpenOption.READ);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        imageChannel.close();
+        imageFile.delete();
+    }
+
+    @Benchmark
+    public byte[] sign(ThroughputCounters counters) throws Exception {
+        counters.add(imageSize);
+        return Utils.sign(keyPair.getPrivate(), image);
+    }
+
+    @Benchmark
+    public boolean verify(ThroughputCounters counters) throws Exception {
+        counters.add(imageSize);
+        return Utils.verify(keyPair.getPublic(), image, signature, algId);
+    }
+
+    @Benchmark
+    public byte[] signStreaming(ThroughputCounters counters) throws Exception {
+        counters.add(imageSize);
+        return Utils.sign(keyPair.getPrivate(), imageChannel, imageSize);
+    }
+
+    @Benchmark
+    public boolean verifyStreaming(ThroughputCounters counters) throws Exception {
+        counters.add(imageSize);
+        return Utils.verify(keyPair.getPublic(), imageChannel, imageSize, signature, algId);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the verity benchmarks with the GC profiler attached, so every
+ * result carries its allocation rate (gc.alloc.rate.norm is bytes per
+ * operation). Any JMH option may be passed on the command line, e.g.
+ *
+ *     java -jar VerityBenchmarks.jar -p keyType=RSA-4096 SigningBenchmark.sign
+ */
+public class VerityBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+
+        options.parent(cmdOptions);
+        if (cmdOptions.getIncludes().isEmpty()) {
+            options.include(VerityBenchmarks.class.getPackage().getName() + "\\..*Benchmark");
+        }
+        options.addProfiler(GCProfiler.class);
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,13 @@
+LOCAL_PATH:= $(call my-dir)
+
+include $(CLEAR_VARS)
+LOCAL_SRC_FILES := \
+    $(call all-java-files-under, src) \
+    ../BootSignature.java \
+    ../Utils.java
+LOCAL_MODULE := VerityTests
+LOCAL_MODULE_TAGS := optional
+LOCAL_STATIC_JAVA_LIBRARIES := \
+    bouncycastle-host \
+    junit
+include $(BUILD_HOST_JAVA_LIBRARY)
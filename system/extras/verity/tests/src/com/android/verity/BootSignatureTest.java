@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BootSignatureTest {
+
+    private static final int IMAGE_SIZE = 65536;
+
+    private File mDir;
+    private KeyPair mKeyPair;
+    private X509Certificate mCert;
+    private byte[] mImage;
+
+    @Before
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        mDir = Files.createTempDirectory("verity").toFile();
+        mKeyPair = TestKeys.generateKeyPair(TestKeys.RSA_2048);
+        mCert = TestKeys.generateCertificate(mKeyPair);
+        mImage = TestKeys.generateBootImage(IMAGE_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File file : mDir.listFiles()) {
+            file.delete();
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void testSignInPlace() throws Exception {
+        // The build signs boot.img onto itself: $(BOOT_SIGNER) /boot $@ key cert $@
+        File image = new File(mDir, "boot.img");
+        Files.write(image.toPath(), mImage);
+
+        BootSignature.doSignature("/boot", image.getPath(), mKeyPair.getPrivate(), mCert,
+                image.getPath());
+
+        assertSigned(image);
+        assertEquals(1, mDir.list().length);
+    }
+
+    @Test
+    public void testSignToOtherFile() throws Exception {
+        File image = new File(mDir, "boot.img");
+        File signed = new File(mDir, "boot-signed.img");
+        Files.write(image.toPath(), mImage);
+
+        BootSignature.doSignature("/boot", image.getPath(), mKeyPair.getPrivate(), mCert,
+                signed.getPath());
+
+        assertArrayEquals(mImage, Files.readAllBytes(image.toPath()));
+        assertSigned(signed);
+    }
+
+    private void assertSigned(File signed) throws Exception {
+        byte[] contents = Files.readAllBytes(signed.toPath());
+        assertTrue(contents.length > IMAGE_SIZE);
+        assertArrayEquals(mImage, Arrays.copyOf(contents, IMAGE_SIZE));
+        assertTrue(BootSignature.verifyImage(signed.getPath(), mCert));
+    }
+}
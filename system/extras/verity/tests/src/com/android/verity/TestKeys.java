@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.verity;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.Random;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x509.TBSCertificate;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.asn1.x509.V3TBSCertificateGenerator;
+
+/**
+ * Generates the keys, certificates and synthetic images used by the
+ * verity tests and benchmarks, so no key material has to be checked in.
+ */
+class TestKeys {
+
+    static final String RSA_2048 = "RSA-2048";
+    static final String RSA_4096 = "RSA-4096";
+    static final String EC_256 = "EC-256";
+
+    private static final int PAGE_SIZE = 2048;
+    private static final long SEED = 0x76657269747943L;
+
+    static KeyPair generateKeyPair(String keyType) throws Exception {
+        KeyPairGenerator generator;
+
+        if (RSA_2048.equals(keyType) || RSA_4096.equals(keyType)) {
+            generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(RSA_2048.equals(keyType) ? 2048 : 4096);
+        } else if (EC_256.equals(keyType)) {
+            generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else {
+            throw new IllegalArgumentException("Unsupported key type " + keyType);
+        }
+
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Builds a self-signed certificate for the key pair using only the
+     * ASN.1 classes that ship with bouncycastle-host.
+     */
+    static X509Certificate generateCertificate(KeyPair keyPair) throws Exception {
+        AlgorithmIdentifier algId =
+                Utils.getSignatureAlgorithmIdentifier(keyPair.getPrivate());
+        X500Name name = new X500Name("CN=verity-test");
+        long now = System.currentTimeMillis();
+
+        V3TBSCertificateGenerator tbsGen = new V3TBSCertificateGenerator();
+        tbsGen.setSerialNumber(new ASN1Integer(BigInteger.ONE));
+        tbsGen.setIssuer(name);
+        tbsGen.setSubject(name);
+        tbsGen.setStartDate(new Time(new Date(now)));
+        tbsGen.setEndDate(new Time(new Date(now + 24L * 60 * 60 * 1000)));
+        tbsGen.setSignature(algId);
+        tbsGen.setSubjectPublicKeyInfo(
+                SubjectPublicKeyInfo.getInstance(keyPair.getPublic().getEncoded()));
+        TBSCertificate tbs = tbsGen.generateTBSCertificate();
+
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(tbs);
+        v.add(algId);
+        v.add(new DERBitString(Utils.sign(keyPair.getPrivate(), tbs.getEncoded())));
+
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        return (X509Certificate) cf.generateCertificate(
+                new ByteArrayInputStream(new DERSequence(v).getEncoded()));
+    }
+
+    /**
+     * @return a boot image of exactly size bytes with a valid header,
+     * whose kernel fills everything after the first page
+     */
+    static byte[] generateBootImage(int size) {
+        if (size < 2 * PAGE_SIZE || size % PAGE_SIZE != 0) {
+            throw new IllegalArgumentException("Invalid boot image size " + size);
+        }
+
+        byte[] image = new byte[size];
+        new Random(SEED).nextBytes(image);
+
+        ByteBuffer header = ByteBuffer.wrap(image).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("ANDROID!".getBytes());
+        header.putInt(size - PAGE_SIZE); // kernel_size
+        header.putInt(0); // kernel_addr
+        header.putInt(0); // ramdisk_size
+        header.putInt(0); // ramdisk_addr
+        header.putInt(0); // second_size
+        header.putLong(0); // second_addr + tags_addr
+        header.putInt(PAGE_SIZE);
+        header.putInt(0); // dt_size
+        return image;
+    }
+}